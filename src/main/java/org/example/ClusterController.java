@@ -0,0 +1,64 @@
+package org.example;
+// Endpoints internes du cluster, séparés de l’API publique : pas de CORS ouvert, secret partagé exigé.
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.Objects;
+
+@RestController
+// Pas de @CrossOrigin : un navigateur ne peut pas appeler ces endpoints depuis une autre origine.
+public class ClusterController {
+
+    private final ClusterRouter router;
+
+    public ClusterController(ClusterRouter router) {
+        this.router = router;
+    }
+
+    @PostMapping("/cluster/join")
+    // Un worker s’annonce : après vérification de son /health, il entre dans l’anneau.
+    public ResponseEntity<Map<String, Object>> join(@RequestHeader(value = ClusterRouter.SECRET_HEADER, required = false) String secret,
+                                                    @RequestBody Map<String, Object> req) {
+        ResponseEntity<Map<String, Object>> refused = refuse(secret);
+        if (refused != null) {
+            return refused;
+        }
+        try {
+            router.admit(Objects.toString(req.get("url")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(err(e.getMessage()));
+        }
+        return ResponseEntity.ok(ok(router.healthyWorkers()));
+    }
+
+    @PostMapping("/cluster/leave")
+    // Un worker se retire : ses clés passent au nœud suivant sur l’anneau.
+    public ResponseEntity<Map<String, Object>> leave(@RequestHeader(value = ClusterRouter.SECRET_HEADER, required = false) String secret,
+                                                     @RequestBody Map<String, Object> req) {
+        ResponseEntity<Map<String, Object>> refused = refuse(secret);
+        if (refused != null) {
+            return refused;
+        }
+        router.leave(Objects.toString(req.get("url")));
+        return ResponseEntity.ok(ok(router.healthyWorkers()));
+    }
+
+    private ResponseEntity<Map<String, Object>> refuse(String secret) {
+        if (!router.isCoordinator()) {
+            return ResponseEntity.badRequest().body(err("Not a coordinator"));
+        }
+        if (!router.authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(err("Invalid cluster secret"));
+        }
+        return null;
+    }
+
+    private static Map<String,Object> ok(Object result){ return Map.of("ok", true, "result", result); }
+    private static Map<String,Object> err(String msg){ return Map.of("ok", false, "error", String.valueOf(msg)); }
+}
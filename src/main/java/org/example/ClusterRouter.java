@@ -0,0 +1,398 @@
+package org.example;
+// Mode coordinateur/worker optionnel : route chaque action vers un worker par hachage cohérent.
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+// Imports Spring pour la configuration, la planification des health checks et les appels HTTP.
+
+import java.io.ByteArrayOutputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/*
+ * Rôles (propriété orekit.cluster.role) :
+ *   standalone  (défaut) : calcule tout localement, comme avant ;
+ *   worker               : calcule localement et garde en cache les derniers résultats ;
+ *   coordinator          : route chaque action (et chaque élément d’un "batch") vers un worker.
+ *
+ * Exemple sur une seule machine :
+ *   java -jar app.jar --server.port=8081 --orekit.cluster.role=worker --orekit.cluster.coordinator=http://localhost:8080 --orekit.cluster.secret=s3cret
+ *   java -jar app.jar --server.port=8082 --orekit.cluster.role=worker --orekit.cluster.coordinator=http://localhost:8080 --orekit.cluster.secret=s3cret
+ *   java -jar app.jar --server.port=8080 --orekit.cluster.role=coordinator --orekit.cluster.secret=s3cret
+ * Les workers peuvent aussi être listés d’avance : --orekit.cluster.workers=http://localhost:8081,http://localhost:8082
+ *
+ * /cluster/join et /cluster/leave exigent le secret partagé (--orekit.cluster.secret=..., identique sur
+ * tous les nœuds) dans l’en-tête X-Orekit-Cluster-Secret ; sans secret configuré, ils sont désactivés.
+ * --orekit.cluster.allowed-hosts=host1,host2 limite en plus les hôtes acceptés à l’annonce.
+ */
+@Component
+public class ClusterRouter {
+
+    public static final String WORKER_HEADER = "X-Orekit-Worker";
+    // En-tête ajouté par le coordinateur : URL du worker qui a répondu.
+
+    public static final String SECRET_HEADER = "X-Orekit-Cluster-Secret";
+    // En-tête portant le secret partagé sur /cluster/join et /cluster/leave.
+
+    private final String role;
+    private final String coordinator;
+    private final String advertiseUrl;
+    private final String secret;
+    private final Set<String> allowedHosts = new HashSet<>();
+
+    private final ConsistentHashRing ring;
+    // Anneau des workers en bonne santé : une clé reste sur le même worker tant qu’il répond.
+
+    private final Set<String> workers = ConcurrentHashMap.newKeySet();
+    // Tous les workers connus, sains ou non (re-testés à chaque health check).
+
+    private final RestTemplate http;
+    private final RestTemplate probe;
+    // Client à délais courts pour /health : un nœud qui ne répond pas vite n’est pas admis.
+
+    private final RestTemplate control;
+    // Client des annonces /cluster/* : le coordinateur sonde le /health du worker avant de répondre.
+
+    private final ExecutorService pool;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ClusterRouter(@Value("${orekit.cluster.role:standalone}") String role,
+                         @Value("${orekit.cluster.workers:}") String workerList,
+                         @Value("${orekit.cluster.coordinator:}") String coordinator,
+                         @Value("${orekit.cluster.advertise-url:http://localhost:${server.port:8080}}") String advertiseUrl,
+                         @Value("${orekit.cluster.virtual-nodes:128}") int virtualNodes,
+                         @Value("${orekit.cluster.timeout-ms:30000}") int timeoutMs,
+                         @Value("${orekit.cluster.threads:32}") int threads,
+                         @Value("${orekit.cluster.secret:}") String secret,
+                         @Value("${orekit.cluster.allowed-hosts:}") String allowedHosts,
+                         @Value("${orekit.cluster.probe-timeout-ms:1500}") int probeTimeoutMs) {
+        this.role = role;
+        this.coordinator = coordinator;
+        this.advertiseUrl = advertiseUrl;
+        this.secret = secret;
+        this.ring = new ConsistentHashRing(virtualNodes);
+        for (String host : allowedHosts.split(",")) {
+            if (!host.isBlank()) {
+                this.allowedHosts.add(host.trim().toLowerCase());
+            }
+        }
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Math.min(timeoutMs, 2000));
+        factory.setReadTimeout(timeoutMs);
+        this.http = new RestTemplate(factory);
+
+        SimpleClientHttpRequestFactory probeFactory = new SimpleClientHttpRequestFactory();
+        probeFactory.setConnectTimeout(probeTimeoutMs);
+        probeFactory.setReadTimeout(probeTimeoutMs);
+        this.probe = new RestTemplate(probeFactory);
+
+        SimpleClientHttpRequestFactory controlFactory = new SimpleClientHttpRequestFactory();
+        controlFactory.setConnectTimeout(probeTimeoutMs);
+        controlFactory.setReadTimeout(2 * probeTimeoutMs);
+        this.control = new RestTemplate(controlFactory);
+        this.pool = Executors.newFixedThreadPool(threads);
+        // Pool dédié aux appels HTTP bloquants d’un batch.
+
+        for (String w : workerList.split(",")) {
+            if (!w.isBlank()) {
+                join(w.trim());
+            }
+        }
+    }
+
+    public String getRole() { return role; }
+
+    public boolean isCoordinator() { return "coordinator".equals(role); }
+
+    public boolean isWorker() { return "worker".equals(role); }
+
+    // Idempotent : les workers se ré-annoncent périodiquement (utile après un redémarrage du coordinateur).
+    public synchronized void join(String node) {
+        boolean known = !workers.add(node);
+        if (!ring.contains(node)) {
+            ring.add(node);
+            System.out.println((known ? "[OK] worker de retour : " : "[OK] worker ajouté : ") + node);
+        }
+    }
+
+    // Comparaison en temps constant ; sans secret configuré, personne n’est autorisé.
+    public boolean authorized(String candidate) {
+        if (secret.isBlank() || candidate == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Annonce d’un worker par /cluster/join : URL http(s) d’un hôte autorisé, qui répond à /health.
+    public void admit(String node) {
+        URI uri;
+        try {
+            uri = new URI(node);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("URL invalide : " + node);
+        }
+        if ((!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) || uri.getHost() == null) {
+            throw new IllegalArgumentException("URL http(s) attendue : " + node);
+        }
+        if (!allowedHosts.isEmpty() && !allowedHosts.contains(uri.getHost().toLowerCase())) {
+            throw new IllegalArgumentException("Hôte non autorisé : " + uri.getHost());
+        }
+        if (!isUp(node)) {
+            throw new IllegalArgumentException("Worker injoignable : " + node);
+        }
+        join(node);
+    }
+
+    private boolean isUp(String node) {
+        try {
+            Map<String, Object> res = probe.getForObject(node + "/health", Map.class);
+            return res != null && Boolean.TRUE.equals(res.get("ok"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public synchronized void leave(String node) {
+        workers.remove(node);
+        ring.remove(node);
+        System.out.println("[OK] worker retiré : " + node);
+    }
+
+    public List<String> healthyWorkers() {
+        List<String> list = new ArrayList<>();
+        for (String w : workers) {
+            if (ring.contains(w)) {
+                list.add(w);
+            }
+        }
+        return list;
+    }
+
+    // Clé canonique : maps triées par clé, nombres ramenés en double (7000000 == 7000000.0).
+    public String canonicalKey(String action, Object params) {
+        Map<String, Object> req = new TreeMap<>();
+        req.put("action", action);
+        req.put("params", canonical(params));
+        try {
+            return mapper.writeValueAsString(req);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Object canonical(Object o) {
+        if (o instanceof Map<?, ?> m) {
+            Map<String, Object> sorted = new TreeMap<>();
+            m.forEach((k, v) -> sorted.put(String.valueOf(k), canonical(v)));
+            return sorted;
+        }
+        if (o instanceof List<?> l) {
+            List<Object> list = new ArrayList<>();
+            l.forEach(v -> list.add(canonical(v)));
+            return list;
+        }
+        if (o instanceof Number n) {
+            return n.doubleValue();
+        }
+        return o;
+    }
+
+    // Envoie l’action au worker propriétaire de la clé, puis aux suivants sur l’anneau s’il est injoignable.
+    // La réponse du worker est relayée telle quelle (octets + content type), sans être relue ni resérialisée.
+    public ResponseEntity<byte[]> route(String action, Map<String, Object> params,
+                                        Function<Map<String, Object>, Map<String, Object>> local) {
+        Map<String, Object> req = new LinkedHashMap<>();
+        req.put("action", action);
+        req.put("params", params);
+
+        for (String node : ring.nodesFor(canonicalKey(action, params))) {
+            try {
+                ResponseEntity<byte[]> res = http.postForEntity(node + "/orekit", req, byte[].class);
+                if (res.getBody() == null) {
+                    return json(Map.of("ok", false, "error", "Empty response from " + node));
+                }
+                MediaType type = res.getHeaders().getContentType();
+                return ResponseEntity.ok()
+                        .contentType(type != null ? type : MediaType.APPLICATION_JSON)
+                        .header(WORKER_HEADER, node)
+                        .body(res.getBody());
+            } catch (ResourceAccessException e) {
+                if (!isConnectFailure(e)) {
+                    // Délai de lecture dépassé : le worker calcule encore, il reste dans l’anneau.
+                    return json(Map.of("ok", false, "error", "Worker " + node + " did not answer in time: " + e.getMessage()));
+                }
+                // Worker injoignable : on le sort de l’anneau jusqu’au prochain health check réussi.
+                markDown(node, e);
+            } catch (RestClientResponseException e) {
+                // Erreur HTTP : le worker est joignable, seul ce cas construit une enveloppe d’erreur.
+                return json(Map.of("ok", false, "error", "Worker " + node + " answered HTTP " + e.getStatusCode().value()
+                        + ": " + e.getResponseBodyAsString()));
+            } catch (RestClientException e) {
+                return json(Map.of("ok", false, "error", "Worker " + node + ": " + e.getMessage()));
+            }
+        }
+        // Aucun worker disponible : calcul local par le coordinateur.
+        return json(local.apply(req));
+    }
+
+    // Route chaque élément d’un batch séparément, en parallèle, et assemble {"ok":true,"result":[...]}
+    // en concaténant les réponses brutes des workers, dans l’ordre.
+    public ResponseEntity<byte[]> routeBatch(List<Map<String, Object>> items,
+                                             Function<Map<String, Object>, Map<String, Object>> local) {
+        List<Future<ResponseEntity<byte[]>>> futures = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            String action = String.valueOf(item.get("action"));
+            Map<String, Object> params = (Map<String, Object>) item.get("params");
+            futures.add(pool.submit(() -> route(action, params, local)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("{\"ok\":true,\"result\":[".getBytes(StandardCharsets.UTF_8));
+        for (int k = 0; k < futures.size(); k++) {
+            if (k > 0) {
+                out.write(',');
+            }
+            byte[] body;
+            try {
+                body = futures.get(k).get().getBody();
+            } catch (Exception e) {
+                body = json(Map.of("ok", false, "error", String.valueOf(e.getMessage()))).getBody();
+            }
+            out.writeBytes(body);
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out.toByteArray());
+    }
+
+    private ResponseEntity<byte[]> json(Map<String, Object> body) {
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(mapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Seuls un refus ou un échec de connexion déclenchent le basculement vers le nœud suivant.
+    private static boolean isConnectFailure(ResourceAccessException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ConnectException
+                || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException) {
+            return true;
+        }
+        return cause instanceof SocketTimeoutException
+                && String.valueOf(cause.getMessage()).toLowerCase().contains("connect");
+    }
+
+    private synchronized void markDown(String node, Exception e) {
+        if (ring.contains(node)) {
+            ring.remove(node);
+            System.out.println("[WARN] worker indisponible : " + node + " (" + e.getMessage() + ")");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orekit.cluster.health-interval-ms:5000}")
+    // Health check périodique : un worker qui revient réintègre l’anneau, un worker muet en sort.
+    // Les sondes partent en parallèle avec le client à délais courts : un tour dure au plus un délai de sonde.
+    public void checkHealth() {
+        if (!isCoordinator()) {
+            return;
+        }
+        List<Future<?>> probes = new ArrayList<>();
+        for (String node : workers) {
+            probes.add(pool.submit(() -> updateHealth(node)));
+        }
+        for (Future<?> f : probes) {
+            try {
+                f.get();
+            } catch (Exception e) {
+                // Sonde interrompue : le nœud sera re-testé au prochain tour.
+            }
+        }
+    }
+
+    private void updateHealth(String node) {
+        boolean up = isUp(node);
+        synchronized (this) {
+            if (up && workers.contains(node) && !ring.contains(node)) {
+                ring.add(node);
+                System.out.println("[OK] worker de retour : " + node);
+            } else if (!up && ring.contains(node)) {
+                ring.remove(node);
+                System.out.println("[WARN] worker indisponible : " + node);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    // Au démarrage, un worker s’annonce auprès du coordinateur (s’il est configuré).
+    public void onReady() {
+        register();
+    }
+
+    @Scheduled(initialDelayString = "${orekit.cluster.join-interval-ms:10000}",
+               fixedDelayString = "${orekit.cluster.join-interval-ms:10000}")
+    // Puis se ré-annonce périodiquement : un coordinateur redémarré retrouve ses workers.
+    public void register() {
+        if (isWorker() && !coordinator.isBlank()) {
+            try {
+                control.postForObject(coordinator + "/cluster/join", announce(), Map.class);
+            } catch (Exception e) {
+                System.out.println("[WARN] coordinateur injoignable : " + coordinator + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    private HttpEntity<Map<String, Object>> announce() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(SECRET_HEADER, secret);
+        return new HttpEntity<>(Map.of("url", advertiseUrl), headers);
+    }
+
+    @PreDestroy
+    // À l’arrêt, un worker se retire lui-même : ses clés passent aussitôt au nœud suivant.
+    public void unregister() {
+        if (isWorker() && !coordinator.isBlank()) {
+            try {
+                control.postForObject(coordinator + "/cluster/leave", announce(), Map.class);
+            } catch (Exception e) {
+                System.out.println("[WARN] coordinateur injoignable : " + coordinator + " (" + e.getMessage() + ")");
+            }
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+// Anneau de hachage cohérent : associe chaque clé de requête à un worker.
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class ConsistentHashRing {
+
+    private final int virtualNodes;
+    // Nombre de points par nœud sur l’anneau (lisse la répartition).
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> members = new HashSet<>();
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes doit être > 0");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void add(String node) {
+        members.add(node);
+        for (int v = 0; v < virtualNodes; v++) {
+            ring.put(hash(node + "#" + v), node);
+        }
+    }
+
+    public synchronized void remove(String node) {
+        members.remove(node);
+        for (int v = 0; v < virtualNodes; v++) {
+            ring.remove(hash(node + "#" + v));
+        }
+        // Seules les clés de ce nœud changent de propriétaire.
+    }
+
+    public synchronized boolean contains(String node) {
+        return members.contains(node);
+    }
+
+    // Nœuds distincts dans l’ordre de l’anneau à partir de la clé (le premier est le propriétaire).
+    public synchronized List<String> nodesFor(String key) {
+        List<String> nodes = new ArrayList<>();
+        if (ring.isEmpty()) {
+            return nodes;
+        }
+        long h = hash(key);
+        SortedMap<Long, String> tail = ring.tailMap(h);
+        for (Map<Long, String> part : List.of(tail, ring.headMap(h))) {
+            for (String node : part.values()) {
+                if (!nodes.contains(node)) {
+                    nodes.add(node);
+                }
+                if (nodes.size() == members.size()) {
+                    return nodes;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static long hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("MD5").digest(s.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int k = 0; k < 8; k++) {
+                h = (h << 8) | (d[k] & 0xFF);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
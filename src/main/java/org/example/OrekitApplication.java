@@ -3,10 +3,12 @@ package org.example;
 
 import org.hipparchus.analysis.function.Abs;
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.maneuvers.ConjunctionScreening;
 import org.maneuvers.Hohmann;
 import org.maneuvers.InclinationChange;
 import org.maneuvers.PosHohmann;
 import org.maneuvers.PosKep;
+import org.maneuvers.StationVisibility;
 import org.orekit.data.DataContext;
 import org.orekit.data.DirectoryCrawler;
 import org.orekit.forces.maneuvers.ImpulseManeuver;
@@ -14,11 +16,15 @@ import org.orekit.frames.Frame;
 import org.orekit.frames.FramesFactory;
 import org.orekit.orbits.KeplerianOrbit;
 import org.orekit.orbits.PositionAngleType;
+import org.orekit.propagation.analytical.KeplerianPropagator;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.PVCoordinates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -28,7 +34,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -56,9 +64,69 @@ public class OrekitApplication {
         }
     }
 
+    private final ClusterRouter router;
+    // Routage coordinateur/worker (mode standalone par défaut : tout est calculé ici).
+
+    private final ResultCache cache;
+    // Cache LRU des derniers résultats d’un worker (clé canonique → réponse), borné en octets.
+
+    public OrekitApplication(ClusterRouter router,
+                             @Value("${orekit.cluster.cache-bytes:268435456}") long cacheBytes,
+                             @Value("${orekit.cluster.cache-max-entry-bytes:33554432}") long maxEntryBytes) {
+        this.router = router;
+        this.cache = new ResultCache(cacheBytes, maxEntryBytes);
+        // 256 Mo au total par défaut, résultats de plus de 32 Mo jamais mis en cache.
+    }
+
     @PostMapping("/orekit")
     // Endpoint principal : reçoit un JSON {action, params}.
-    public Map<String, Object> orekit(@RequestBody Map<String, Object> req) {
+    // En coordinateur, la réponse du worker est relayée en octets bruts (pas de double sérialisation).
+    public ResponseEntity<?> orekit(@RequestBody Map<String, Object> req) {
+        try {
+            String action = Objects.toString(req.get("action"), "");
+
+            if ("batch".equals(action)) {
+                // Batch : {action: "batch", params: {items: [{action, params}, ...]}}, réponses dans l’ordre.
+                Map<String, Object> p = (Map<String, Object>) req.get("params");
+                List<Map<String, Object>> items = (List<Map<String, Object>>) p.get("items");
+                if (router.isCoordinator()) {
+                    return router.routeBatch(items, this::local);
+                }
+                List<Map<String, Object>> out = new ArrayList<>();
+                for (Map<String, Object> item : items) {
+                    out.add(local(item));
+                }
+                return ResponseEntity.ok(ok(out));
+            }
+            if (router.isCoordinator()) {
+                return router.route(action, (Map<String, Object>) req.get("params"), this::local);
+            }
+            return ResponseEntity.ok(local(req));
+        } catch (Exception e) {
+            // Renvoie une erreur JSON propre si une exception survient.
+            return ResponseEntity.ok(err(e.getMessage()));
+        }
+    }
+
+    // Calcul local, avec cache des résultats en mode worker (le hachage cohérent y renvoie les mêmes requêtes).
+    private Map<String, Object> local(Map<String, Object> req) {
+        String action = Objects.toString(req.get("action"), "");
+        if (!router.isWorker()) {
+            return dispatch(req);
+        }
+        String key = router.canonicalKey(action, req.get("params"));
+        Map<String, Object> hit = cache.get(key);
+        if (hit != null) {
+            return hit;
+        }
+        Map<String, Object> res = dispatch(req);
+        if (Boolean.TRUE.equals(res.get("ok"))) {
+            cache.put(key, res);
+        }
+        return res;
+    }
+
+    private Map<String, Object> dispatch(Map<String, Object> req) {
         try {
             ensureOrekit();
             String action = Objects.toString(req.get("action"), "");
@@ -73,6 +141,12 @@ public class OrekitApplication {
             if("compute_inclination".equals(action)){
                 return ok(computeInclination(p));
             }
+            if("screen_conjunctions".equals(action)){
+                return ok(screenConjunctions(p));
+            }
+            if("compute_visibility".equals(action)){
+                return ok(computeVisibility(p));
+            }
             else {
                 return err("Unknown action: " + action);
             }
@@ -82,24 +156,28 @@ public class OrekitApplication {
         }
     }
 
+    @GetMapping("/health")
+    // Health check utilisé par le coordinateur.
+    public Map<String, Object> health() {
+        Map<String, Object> out = new HashMap<>();
+        out.put("ok", true);
+        out.put("role", router.getRole());
+        out.put("cache_size", cache.size());
+        out.put("cache_bytes", cache.bytes());
+        if (router.isCoordinator()) {
+            out.put("workers", router.healthyWorkers());
+        }
+        return out;
+    }
+
     private Map<String, Object> computeOrbit(Map<String, Object> p) {
-        // Lit les 6 paramètres + type (0 = képlérien, 1 = cartésien), frame, dates, dt.
-        double p1    = toD(p.get("p1"));
-        double p2    = toD(p.get("p2"));
-        double p3    = toD(p.get("p3"));
-        double p4    = toD(p.get("p4"));
-        double p5    = toD(p.get("p5"));
-        double p6    = toD(p.get("p6"));
-        double type  = toD(p.get("type"));
+        // Lit frame, dates, dt (les 6 paramètres + type sont lus par buildOrbit).
         String frameName = Objects.toString(p.getOrDefault("frame","EME2000"));
         String epochend =   Objects.toString(p.get("epoch_end"));
         String epochIso  = Objects.toString(p.getOrDefault("epoch_start","2025-01-01T00:00:00Z"));
         double dt        = toD(p.get("dt_seconds"));
 
-        Frame frame = switch (frameName) {
-            case "GCRF" -> FramesFactory.getGCRF();
-            default     -> FramesFactory.getEME2000();
-        };
+        Frame frame = toFrame(frameName);
         // Sélectionne le repère inertiel (EME2000 par défaut).
 
         AbsoluteDate dateend = new AbsoluteDate(Instant.parse(epochend), TimeScalesFactory.getUTC());
@@ -107,28 +185,9 @@ public class OrekitApplication {
         double deltaSecond = dateend.durationFrom(date0);
         // Durée de propagation = fin - début (en secondes).
 
-        KeplerianOrbit orbit = null;
+        KeplerianOrbit orbit = buildOrbit(p, frame, date0);
         // Construit l’orbite selon le type d’entrée.
 
-        if (type == 0 ) {
-            // Entrée képlérienne : angles en radians, a en mètres, μ Terre WGS84.
-            p3 = Math.toRadians(p3);
-            p4 = Math.toRadians(p4);
-            p5 = Math.toRadians(p5);
-            p6 = Math.toRadians(p6);
-
-            orbit = new KeplerianOrbit(
-                    p1, p2, p3, p4, p5, p6,
-                    PositionAngleType.TRUE, frame, date0, Constants.WGS84_EARTH_MU
-            );
-        } else if (type == 1) {
-            // Entrée cartésienne : position (m) et vitesse (m/s) → PV → Orbite.
-            Vector3D position = new Vector3D(p1, p2, p3);
-            Vector3D velocity = new Vector3D(p4, p5, p6);
-            PVCoordinates pv = new PVCoordinates(position, velocity);
-            orbit = new KeplerianOrbit(pv, frame, date0, Constants.WGS84_EARTH_MU);
-        }
-
         PosKep tableau = new PosKep(orbit, deltaSecond, dt);
         double[][] data = tableau.positionsTimeArray();
         // Échantillonne la position temporelle [t, x, y, z] selon dt.
@@ -142,12 +201,24 @@ public class OrekitApplication {
     }
 
     private Map<String, Object> computeHohmann(Map<String, Object> p) {
-        // Paramètres Hohmann : a_init/final (m), dates, dt, méthode/valeur de manœuvre.
+        double dt = toD(p.get("dt"));
+
+        PosHohmann pashohmann = buildPosHohmann(p, dt);
+        double[][] data = pashohmann.positionsTimeArray();
+        // Échantillonne la trajectoire (avant/pendant/après transfert).
+        saveToCSV(data, "C:\\Users\\valentin.videmont\\OneDrive - Ecole de l'air\\Bureau\\Test\\orbit.csv");
+        Map<String,Object> out = new HashMap<>();
+        out.put("data", data);
+        // Réponse : tableau des positions [t, x, y, z].
+        return out;
+    }
+
+    private static PosHohmann buildPosHohmann(Map<String, Object> p, double dt) {
+        // Paramètres Hohmann : a_init/final (m), dates, méthode/valeur de manœuvre (le pas dt est passé à part).
         double a_init = toD(p.get("a_init"));
         double a_final = toD(p.get("a_final"));
         String epochstart = Objects.toString(p.get("epoch_start"));
         String epochend   = Objects.toString(p.get("epoch_end"));
-        double dt         = toD(p.get("dt"));
         double man_method = toD((p.get("man_method")));
         String start_man  = Objects.toString(p.get("man_value"));
 
@@ -174,17 +245,23 @@ public class OrekitApplication {
         Hohmann hohmann = new Hohmann(a_final, orbit, date_man);
         // Calcule la manœuvre Hohmann (ΔV1/ΔV2, dates, transfert).
 
-        PosHohmann pashohmann = new PosHohmann(hohmann, orbit, dt, deltasecond);
-        double[][] data = pashohmann.positionsTimeArray();
-        // Échantillonne la trajectoire (avant/pendant/après transfert).
-        saveToCSV(data, "C:\\Users\\valentin.videmont\\OneDrive - Ecole de l'air\\Bureau\\Test\\orbit.csv");
+        return new PosHohmann(hohmann, orbit, dt, deltasecond);
+    }
+
+    private Map<String, Object> computeInclination(Map<String, Object> p) {
+
+        double dt = toD(p.get("dt"));
+
+        PosKep tableau = buildPosKepInclination(p, dt);
+
+        double[][] data = tableau.positionsTimeArray();
+
         Map<String,Object> out = new HashMap<>();
         out.put("data", data);
-        // Réponse : tableau des positions [t, x, y, z].
         return out;
     }
 
-    private Map<String, Object> computeInclination(Map<String, Object> p) {
+    private static PosKep buildPosKepInclination(Map<String, Object> p, double dt) {
 
         double a = toD(p.get("a"));
         double e = toD(p.get("e"));
@@ -195,7 +272,6 @@ public class OrekitApplication {
 
         String epochstart = Objects.toString(p.get("epoch_start"));
         String epochend   = Objects.toString(p.get("epoch_end"));
-        double dt = toD(p.get("dt"));
 
         double itarget = Math.toRadians(toD(p.get("itarget")));
 
@@ -229,12 +305,151 @@ public class OrekitApplication {
 
         ImpulseManeuver maneuver = ichange.computeManeuver();
 
-        PosKep tableau = new PosKep(orbit,deltaSecond,dt,maneuver,man);
+        return new PosKep(orbit,deltaSecond,dt,maneuver,man);
+    }
 
-        double[][] data = tableau.positionsTimeArray();
+    private static KeplerianOrbit buildOrbit(Map<String, Object> p, Frame frame, AbsoluteDate date0) {
+        // Lit les 6 paramètres + type (0 = képlérien, 1 = cartésien).
+        double p1    = toD(p.get("p1"));
+        double p2    = toD(p.get("p2"));
+        double p3    = toD(p.get("p3"));
+        double p4    = toD(p.get("p4"));
+        double p5    = toD(p.get("p5"));
+        double p6    = toD(p.get("p6"));
+        double type  = toD(p.get("type"));
+
+        KeplerianOrbit orbit = null;
+
+        if (type == 0 ) {
+            // Entrée képlérienne : angles en radians, a en mètres, μ Terre WGS84.
+            p3 = Math.toRadians(p3);
+            p4 = Math.toRadians(p4);
+            p5 = Math.toRadians(p5);
+            p6 = Math.toRadians(p6);
+
+            orbit = new KeplerianOrbit(
+                    p1, p2, p3, p4, p5, p6,
+                    PositionAngleType.TRUE, frame, date0, Constants.WGS84_EARTH_MU
+            );
+        } else if (type == 1) {
+            // Entrée cartésienne : position (m) et vitesse (m/s) → PV → Orbite.
+            Vector3D position = new Vector3D(p1, p2, p3);
+            Vector3D velocity = new Vector3D(p4, p5, p6);
+            PVCoordinates pv = new PVCoordinates(position, velocity);
+            orbit = new KeplerianOrbit(pv, frame, date0, Constants.WGS84_EARTH_MU);
+        }
+        return orbit;
+    }
+
+    private static Frame toFrame(String frameName) {
+        return switch (frameName) {
+            case "GCRF" -> FramesFactory.getGCRF();
+            default     -> FramesFactory.getEME2000();
+        };
+    }
+
+    private Map<String, Object> screenConjunctions(Map<String, Object> p) {
+        // Paramètres communs : frame, dates, dt, seuil (m) ; "orbits" = liste d’éléments comme compute_orbit.
+        String frameName = Objects.toString(p.getOrDefault("frame","EME2000"));
+        String epochend  = Objects.toString(p.get("epoch_end"));
+        String epochIso  = Objects.toString(p.getOrDefault("epoch_start","2025-01-01T00:00:00Z"));
+        double dt        = toD(p.get("dt_seconds"));
+        double threshold = toD(p.getOrDefault("threshold", 5000));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) p.get("orbits");
+
+        Frame frame = toFrame(frameName);
+        AbsoluteDate dateend = new AbsoluteDate(Instant.parse(epochend), TimeScalesFactory.getUTC());
+        AbsoluteDate date0 = new AbsoluteDate(Instant.parse(epochIso), TimeScalesFactory.getUTC());
+        double deltaSecond = dateend.durationFrom(date0);
+
+        List<KeplerianOrbit> orbits = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            orbits.add(buildOrbit(item, frame, date0));
+        }
+        // Tous les objets partagent la même grille temporelle (date0, dt).
+
+        ConjunctionScreening screening = new ConjunctionScreening(orbits, deltaSecond, dt, threshold);
+        List<Map<String, Object>> conjunctions = new ArrayList<>();
+        for (ConjunctionScreening.Conjunction c : screening.screen()) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("i", c.i());
+            row.put("j", c.j());
+            row.put("t", c.t());
+            row.put("tca", date0.shiftedBy(c.t()).toString(TimeScalesFactory.getUTC()));
+            row.put("distance", c.distance());
+            conjunctions.add(row);
+        }
+        // Réponse : rapprochements triés par date (indices dans "orbits", t en s, distance en m).
 
         Map<String,Object> out = new HashMap<>();
-        out.put("data", data);
+        out.put("time_length", deltaSecond);
+        out.put("n_objects", orbits.size());
+        out.put("conjunctions", conjunctions);
+        return out;
+    }
+
+    private Map<String, Object> computeVisibility(Map<String, Object> p) {
+        // Trajectoire : "orbit" (paramètres de compute_orbit), "hohmann" (paramètres de compute_hohmann)
+        // ou "inclination" (paramètres de compute_inclination).
+        String trajectory = Objects.toString(p.getOrDefault("trajectory", "orbit"));
+        String epochend   = Objects.toString(p.get("epoch_end"));
+        String epochIso   = Objects.toString(p.getOrDefault("epoch_start","2025-01-01T00:00:00Z"));
+        double minElevation = Math.toRadians(toD(p.getOrDefault("min_elevation", 0)));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) p.get("stations");
+
+        AbsoluteDate dateend = new AbsoluteDate(Instant.parse(epochend), TimeScalesFactory.getUTC());
+        AbsoluteDate date0 = new AbsoluteDate(Instant.parse(epochIso), TimeScalesFactory.getUTC());
+        double deltaSecond = dateend.durationFrom(date0);
+
+        StationVisibility visibility = switch (trajectory) {
+            case "orbit" -> {
+                Frame frame = toFrame(Objects.toString(p.getOrDefault("frame","EME2000")));
+                yield new StationVisibility(new KeplerianPropagator(buildOrbit(p, frame, date0)), deltaSecond, minElevation);
+            }
+            // Le pas passé ici (dt n’est pas requis) est remplacé par la grille de recherche de StationVisibility.
+            case "hohmann" -> new StationVisibility(buildPosHohmann(p, 60).getpropagator(), deltaSecond, minElevation);
+            case "inclination" -> new StationVisibility(buildPosKepInclination(p, 60), minElevation);
+            default -> throw new IllegalArgumentException("Unknown trajectory: " + trajectory);
+        };
+        // La grille de recherche est choisie par StationVisibility (indépendante du dt de la réponse).
+
+        List<StationVisibility.Station> stations = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            stations.add(new StationVisibility.Station(
+                    Objects.toString(item.get("name"), "station" + stations.size()),
+                    Math.toRadians(toD(item.get("lat"))),
+                    Math.toRadians(toD(item.get("lon"))),
+                    toD(item.getOrDefault("alt", 0))
+            ));
+        }
+        // Stations : latitude/longitude en degrés, altitude en mètres.
+
+        List<List<StationVisibility.Pass>> passes = visibility.computePasses(stations);
+
+        List<Map<String, Object>> tables = new ArrayList<>();
+        for (int k = 0; k < stations.size(); k++) {
+            List<StationVisibility.Pass> list = passes.get(k);
+            double[][] table = new double[list.size()][6];
+            for (int m = 0; m < list.size(); m++) {
+                StationVisibility.Pass pass = list.get(m);
+                table[m][0] = pass.aos();
+                table[m][1] = pass.los();
+                table[m][2] = pass.tMax();
+                table[m][3] = Math.toDegrees(pass.maxElevation());
+                table[m][4] = pass.aosTruncated() ? 1 : 0;
+                table[m][5] = pass.losTruncated() ? 1 : 0;
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", stations.get(k).name());
+            row.put("passes", table);
+            tables.add(row);
+        }
+        // Réponse : une table par station, lignes [AOS, LOS, t élévation max (s), élévation max (deg),
+        // AOS tronqué (1 = passage déjà en cours au début), LOS tronqué (1 = passage encore en cours à la fin)].
+
+        Map<String,Object> out = new HashMap<>();
+        out.put("time_length", deltaSecond);
+        out.put("stations", tables);
         return out;
     }
 
@@ -244,7 +459,7 @@ public class OrekitApplication {
     private static Map<String,Object> ok(Object result){ return Map.of("ok", true, "result", result); }
     // Enveloppe succès standard { ok: true, result: ... }.
 
-    private static Map<String,Object> err(String msg){ return Map.of("ok", false, "error", msg); }
+    private static Map<String,Object> err(String msg){ return Map.of("ok", false, "error", String.valueOf(msg)); }
     // Enveloppe erreur standard { ok: false, error: "..." }.
 
     private void saveToCSV(double[][] data, String filename) {
@@ -3,11 +3,14 @@ package org.example;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.RestController;
 // Importation des classes Spring nécessaires au serveur REST.
 
 @SpringBootApplication
 // Indique que c’est une application Spring Boot (auto-configuration, scan des composants, etc.).
+@EnableScheduling
+// Active les tâches planifiées (health checks du mode coordinateur).
 @RestController
 // Déclare cette classe comme contrôleur REST principal (peut exposer des endpoints HTTP).
 
@@ -0,0 +1,102 @@
+package org.example;
+// Cache LRU des résultats d’un worker, borné par une taille approximative en octets (et non en nombre d’entrées).
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ResultCache {
+
+    private final long maxBytes;
+    // Taille totale maximale du cache.
+
+    private final long maxEntryBytes;
+    // Un résultat plus gros n’est pas mis en cache (il viderait le cache à lui seul).
+
+    private final LinkedHashMap<String, Map<String, Object>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> sizes = new HashMap<>();
+    private long bytes = 0;
+
+    public ResultCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+    }
+
+    public synchronized Map<String, Object> get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, Map<String, Object> result) {
+        long size = estimate(result);
+        if (size > maxEntryBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, result);
+        sizes.put(key, size);
+        bytes += size;
+
+        // Évince les entrées les moins récemment utilisées jusqu’à repasser sous la limite.
+        Iterator<String> it = entries.keySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            String eldest = it.next();
+            it.remove();
+            bytes -= sizes.remove(eldest);
+        }
+    }
+
+    private void remove(String key) {
+        if (entries.remove(key) != null) {
+            bytes -= sizes.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    // Estimation grossière : 8 octets par double, tableaux [t, x, y, z] → lignes × 4 × 8.
+    static long estimate(Object o) {
+        if (o instanceof double[] a) {
+            return 16 + 8L * a.length;
+        }
+        if (o instanceof double[][] rows) {
+            long total = 16 + 8L * rows.length;
+            for (double[] row : rows) {
+                total += estimate(row);
+            }
+            return total;
+        }
+        if (o instanceof Object[] array) {
+            long total = 16 + 8L * array.length;
+            for (Object v : array) {
+                total += estimate(v);
+            }
+            return total;
+        }
+        if (o instanceof Map<?, ?> m) {
+            long total = 64;
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                total += 32 + estimate(e.getKey()) + estimate(e.getValue());
+            }
+            return total;
+        }
+        if (o instanceof Collection<?> c) {
+            long total = 32;
+            for (Object v : c) {
+                total += 8 + estimate(v);
+            }
+            return total;
+        }
+        if (o instanceof String s) {
+            return 40 + 2L * s.length();
+        }
+        return 16;
+    }
+}
@@ -0,0 +1,267 @@
+package org.maneuvers;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.optim.MaxEval;
+import org.hipparchus.optim.nonlinear.scalar.GoalType;
+import org.hipparchus.optim.univariate.BrentOptimizer;
+import org.hipparchus.optim.univariate.SearchInterval;
+import org.hipparchus.optim.univariate.UnivariateObjectiveFunction;
+import org.hipparchus.optim.univariate.UnivariatePointValuePair;
+import org.orekit.orbits.KeplerianOrbit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ConjunctionScreening {
+
+    // Number of grid samples handled by one parallel task
+    private static final int CHUNK = 64;
+
+    private final List<KeplerianOrbit> orbits;
+    private final double tmax;
+    private final double pas;
+    private final double threshold;
+
+    private final double[] perigee;
+    private final double[] apogee;
+    private final double[] vmax;
+    private final double cell;
+
+    // Objects whose shell overlaps at least one other shell, the only ones propagated and hashed
+    private final int[] candidates;
+
+    // Close approach between objects i and j, t in seconds from the common epoch, distance in meters
+    public record Conjunction(int i, int j, double t, double distance) { }
+
+    // Local minimum of the sampled distance of a pair, to be refined around sample k
+    private record Minimum(int i, int j, int k, double d) { }
+
+    // Run of consecutive samples where a pair stays inside its screening radius
+    private static final class Run {
+        final int i;
+        final int j;
+        int kEnd;
+        double dPrev;
+        double dLast;
+
+        Run(int i, int j, int k, double dBefore, double d) {
+            this.i = i;
+            this.j = j;
+            this.kEnd = k;
+            this.dPrev = dBefore;
+            this.dLast = d;
+        }
+
+        // Records the last sample as a minimum if d[k-1] > d[k] <= d[k+1]
+        void next(double dNext, List<Minimum> minima) {
+            if (dPrev > dLast && dLast <= dNext) {
+                minima.add(new Minimum(i, j, kEnd, dLast));
+            }
+        }
+
+        void advance(int k, double d, List<Minimum> minima) {
+            next(d, minima);
+            dPrev = dLast;
+            dLast = d;
+            kEnd = k;
+        }
+    }
+
+    public ConjunctionScreening(List<KeplerianOrbit> orbits, double tmax, double pas, double threshold) {
+        if (pas <= 0) {
+            throw new IllegalArgumentException("Le pas doit être > 0");
+        }
+        if (tmax < 0) {
+            throw new IllegalArgumentException("tmax doit être >= 0");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Le seuil doit être > 0");
+        }
+        this.orbits = orbits;
+        this.tmax = tmax;
+        this.pas = pas;
+        this.threshold = threshold;
+
+        int nObj = orbits.size();
+        this.perigee = new double[nObj];
+        this.apogee = new double[nObj];
+        this.vmax = new double[nObj];
+        double vGlobal = 0;
+        for (int i = 0; i < nObj; i++) {
+            KeplerianOrbit orbit = orbits.get(i);
+            double a = orbit.getA();
+            double e = orbit.getE();
+            perigee[i] = a * (1 - e);
+            apogee[i] = (e < 1) ? a * (1 + e) : Double.POSITIVE_INFINITY;
+            // Fastest point of the orbit is the perigee (vis-viva)
+            vmax[i] = Math.sqrt(orbit.getMu() * (2 / perigee[i] - 1 / a));
+            vGlobal = Math.max(vGlobal, vmax[i]);
+        }
+        // A cell is at least as wide as the largest screening radius of any pair
+        this.cell = threshold + vGlobal * pas;
+        this.candidates = overlappingObjects();
+    }
+
+    // Sweep over the objects sorted by perigee: an object can only meet an earlier one if the highest
+    // apogee so far reaches its perigee, and a later one if the next perigee is below its apogee
+    private int[] overlappingObjects() {
+        Integer[] byPerigee = IntStream.range(0, perigee.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(byPerigee, Comparator.comparingDouble(i -> perigee[i]));
+
+        List<Integer> kept = new ArrayList<>();
+        double highestApogee = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < byPerigee.length; r++) {
+            int i = byPerigee[r];
+            boolean below = perigee[i] - highestApogee <= threshold;
+            boolean above = r + 1 < byPerigee.length && perigee[byPerigee[r + 1]] - apogee[i] <= threshold;
+            if (below || above) {
+                kept.add(i);
+            }
+            highestApogee = Math.max(highestApogee, apogee[i]);
+        }
+        // Ascending indices, so that pairs keep the same order as without the filter
+        return kept.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    // Radial filter per pair: the two orbits can only meet if their [perigee, apogee] shells overlap
+    private boolean shellsOverlap(int i, int j) {
+        return Math.max(perigee[i], perigee[j]) - Math.min(apogee[i], apogee[j]) <= threshold;
+    }
+
+    // Largest distance at a grid sample that can still hide a close approach between two samples
+    private double reach(int i, int j) {
+        return threshold + (vmax[i] + vmax[j]) * pas / 2;
+    }
+
+    private static long cellKey(long cx, long cy, long cz) {
+        return ((cx & 0x1FFFFF) << 42) | ((cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+
+    /** Screens every pair of objects and returns the refined close approaches below threshold, sorted by time */
+    public List<Conjunction> screen() {
+        int n = (int) Math.floor(tmax / pas) + 1;
+        int nChunks = (n + CHUNK - 1) / CHUNK;
+
+        // Each time bucket is screened independently and only keeps the local minima of the close pairs
+        List<Minimum> minima = IntStream.range(0, nChunks)
+                .parallel()
+                .mapToObj(c -> screenChunk(c * CHUNK, Math.min(n, (c + 1) * CHUNK), n))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        return minima.parallelStream()
+                .map(this::refine)
+                .filter(c -> c.distance() <= threshold)
+                .sorted(Comparator.comparingDouble(Conjunction::t))
+                .collect(Collectors.toList());
+    }
+
+    private List<Minimum> screenChunk(int kFrom, int kTo, int n) {
+        int nObj = orbits.size();
+        double[] pos = new double[3 * nObj];
+        Map<Long, List<Integer>> grid = new HashMap<>();
+        Map<Long, Run> open = new HashMap<>();
+        List<Minimum> minima = new ArrayList<>();
+
+        for (int k = kFrom; k < kTo; k++) {
+            double t = k * pas;
+            grid.clear();
+
+            for (int i : candidates) {
+                Vector3D p = orbits.get(i).shiftedBy(t).getPVCoordinates().getPosition();
+                pos[3 * i] = p.getX();
+                pos[3 * i + 1] = p.getY();
+                pos[3 * i + 2] = p.getZ();
+                long cx = (long) Math.floor(p.getX() / cell);
+                long cy = (long) Math.floor(p.getY() / cell);
+                long cz = (long) Math.floor(p.getZ() / cell);
+
+                // Look for already hashed objects in the 27 neighbouring cells
+                for (long dx = -1; dx <= 1; dx++) {
+                    for (long dy = -1; dy <= 1; dy++) {
+                        for (long dz = -1; dz <= 1; dz++) {
+                            List<Integer> bucket = grid.get(cellKey(cx + dx, cy + dy, cz + dz));
+                            if (bucket == null) {
+                                continue;
+                            }
+                            for (int j : bucket) {
+                                if (!shellsOverlap(i, j)) {
+                                    continue;
+                                }
+                                double ddx = pos[3 * i] - pos[3 * j];
+                                double ddy = pos[3 * i + 1] - pos[3 * j + 1];
+                                double ddz = pos[3 * i + 2] - pos[3 * j + 2];
+                                double d = Math.sqrt(ddx * ddx + ddy * ddy + ddz * ddz);
+                                if (d <= reach(i, j)) {
+                                    int lo = Math.min(i, j);
+                                    int hi = Math.max(i, j);
+                                    long pairKey = ((long) lo << 32) | hi;
+                                    Run run = open.get(pairKey);
+                                    if (run == null) {
+                                        // Outside the run the pair is farther than its radius, except across the bucket start
+                                        double dBefore = (k == kFrom && k > 0)
+                                                ? distance(lo, hi, (k - 1) * pas)
+                                                : Double.POSITIVE_INFINITY;
+                                        open.put(pairKey, new Run(lo, hi, k, dBefore, d));
+                                    } else {
+                                        run.advance(k, d, minima);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                grid.computeIfAbsent(cellKey(cx, cy, cz), key -> new ArrayList<>()).add(i);
+            }
+
+            // Pairs that left their screening radius close their run
+            Iterator<Run> it = open.values().iterator();
+            while (it.hasNext()) {
+                Run run = it.next();
+                if (run.kEnd != k) {
+                    run.next(Double.POSITIVE_INFINITY, minima);
+                    it.remove();
+                }
+            }
+        }
+
+        // Runs still open at the bucket end look one sample ahead, computed directly for that pair
+        for (Run run : open.values()) {
+            double dAfter = (kTo < n) ? distance(run.i, run.j, kTo * pas) : Double.POSITIVE_INFINITY;
+            run.next(dAfter, minima);
+        }
+        return minima;
+    }
+
+    private double distance(int i, int j, double t) {
+        return Vector3D.distance(orbits.get(i).shiftedBy(t).getPVCoordinates().getPosition(),
+                                 orbits.get(j).shiftedBy(t).getPVCoordinates().getPosition());
+    }
+
+    // Time and distance of closest approach around one sampled minimum
+    private Conjunction refine(Minimum m) {
+        double lo = Math.max(0, (m.k() - 1) * pas);
+        double hi = Math.min(tmax, (m.k() + 1) * pas);
+        if (hi <= lo) {
+            return new Conjunction(m.i(), m.j(), m.k() * pas, m.d());
+        }
+
+        UnivariateObjectiveFunction objective = new UnivariateObjectiveFunction(t -> distance(m.i(), m.j(), t));
+        BrentOptimizer optimizer = new BrentOptimizer(1e-10, 1e-3);
+        UnivariatePointValuePair best = optimizer.optimize(
+                new MaxEval(200), objective, GoalType.MINIMIZE,
+                new SearchInterval(lo, hi, m.k() * pas));
+
+        if (best.getValue() < m.d()) {
+            return new Conjunction(m.i(), m.j(), best.getPoint(), best.getValue());
+        }
+        return new Conjunction(m.i(), m.j(), m.k() * pas, m.d());
+    }
+}
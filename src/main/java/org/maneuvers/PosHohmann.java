@@ -34,7 +34,7 @@ public class PosHohmann {
     }
 
     // <<< type de retour ajouté
-    private NumericalPropagator getpropagator() {
+    public NumericalPropagator getpropagator() {
         // Attitude en LOF TNW (tes Δv sont définis en repère sat)
         final AttitudeProvider attitudeProvider = new LofOffset(initorbit.getFrame(), LOFType.TNW);
 
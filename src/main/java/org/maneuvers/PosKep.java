@@ -2,12 +2,18 @@ package org.maneuvers;
 
 import org.orekit.forces.maneuvers.ImpulseManeuver;
 import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.Orbit;
 import org.orekit.propagation.SpacecraftState;
 import org.orekit.propagation.analytical.KeplerianPropagator;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.utils.PVCoordinates;
 
+import java.util.stream.IntStream;
+
 public class PosKep {
+    // Number of samples filled by one parallel task
+    private static final int CHUNK = 2048;
+
     private final KeplerianOrbit initialOrbit;
     private final double tmax;
     private final double pas;
@@ -44,8 +50,120 @@ public class PosKep {
     }
 
 
-    /** Renvoie un tableau [t, x, y, z] en secondes et mètres */
+    // Receives sample k, called concurrently on disjoint indices
+    private interface Sink {
+        void accept(int k, SpacecraftState s);
+    }
+
+    public KeplerianOrbit getInitialOrbit() {
+        return initialOrbit;
+    }
+
+    public double getTmax() {
+        return tmax;
+    }
+
+    // Same trajectory (orbit, maneuver, start date) sampled with another step
+    public PosKep withStep(double step) {
+        return new PosKep(initialOrbit, tmax, step, maneuver, startdate);
+    }
+
+    /** Renvoie un tableau [t, x, y, z] en secondes et mètres, calculé par segments en parallèle */
     public double[][] positionsTimeArray() {
+        int n = (int) Math.floor(tmax / pas) + 1;
+        double[][] data = new double[n][];
+        sample(n, (k, s) -> data[k] = row(k * pas, s));
+        return data;
+    }
+
+    /** Renvoie les états aux instants k * pas, calculés par segments en parallèle */
+    public SpacecraftState[] statesArray() {
+        int n = (int) Math.floor(tmax / pas) + 1;
+        SpacecraftState[] states = new SpacecraftState[n];
+        sample(n, (k, s) -> states[k] = s);
+        return states;
+    }
+
+    private void sample(int n, Sink sink) {
+        if (maneuver == null) {
+            fillParallel(sink, initialOrbit, 0, n);
+            return;
+        }
+
+        double i_init = initialOrbit.getI();
+        boolean equatorial = i_init < 1e-5;
+        AbsoluteDate start = initialOrbit.getDate();
+
+        // First sample strictly after the maneuver start date, where the serial path arms the detector
+        int k0 = Math.max(0, Math.min(n, (int) Math.floor(startdate / pas) + 1));
+        while (k0 > 0 && (k0 - 1) * pas > startdate) {
+            k0--;
+        }
+        while (k0 < n && k0 * pas <= startdate) {
+            k0++;
+        }
+
+        // Samples before the impulse only depend on the initial orbit
+        KeplerianPropagator propagator = new KeplerianPropagator(initialOrbit);
+        int kSeed;
+        if (equatorial) {
+            // The date detector cannot fire before the sample preceding the maneuver date
+            kSeed = Math.max(0, k0 - 2);
+            propagator.addEventDetector(maneuver);
+        } else {
+            kSeed = Math.min(n, k0 + 1);
+            if (k0 < n) {
+                propagator.propagate(start.shiftedBy(k0 * pas));
+            }
+            propagator.addEventDetector(maneuver);
+        }
+        fillParallel(sink, initialOrbit, 0, kSeed);
+
+        // Walk serially from the armed detector until the impulse has been applied
+        int kEnd = n;
+        Orbit postOrbit = null;
+        for (int k = kSeed; k < n; k++) {
+            SpacecraftState s = propagator.propagate(start.shiftedBy(k * pas));
+            sink.accept(k, s);
+            if (Math.abs(i_init - s.getOrbit().getI()) > 1e-6) {
+                kEnd = k + 1;
+                postOrbit = s.getOrbit();
+                break;
+            }
+        }
+
+        // After the impulse the trajectory is Keplerian again, seeded from the post-maneuver orbit at the
+        // first sample after the impulse (the serial path shifts the reset state instead: same up to round-off)
+        if (postOrbit != null) {
+            fillParallel(sink, postOrbit, kEnd, n);
+        }
+    }
+
+    // Fills the disjoint slices [from, to) of the output, each chunk with its own propagator
+    private void fillParallel(Sink sink, Orbit seed, int from, int to) {
+        AbsoluteDate start = initialOrbit.getDate();
+        int nChunks = (to - from + CHUNK - 1) / CHUNK;
+        IntStream.range(0, Math.max(0, nChunks)).parallel().forEach(c -> {
+            KeplerianPropagator propagator = new KeplerianPropagator(seed);
+            int kTo = Math.min(to, from + (c + 1) * CHUNK);
+            for (int k = from + c * CHUNK; k < kTo; k++) {
+                sink.accept(k, propagator.propagate(start.shiftedBy(k * pas)));
+            }
+        });
+    }
+
+    private static double[] row(double t, SpacecraftState s) {
+        PVCoordinates pv = s.getPVCoordinates();
+        return new double[] {
+                t, // temps écoulé en secondes
+                pv.getPosition().getX()*1E-6,
+                pv.getPosition().getY()*1E-6,
+                pv.getPosition().getZ()*1E-6
+        };
+    }
+
+    // Référence séquentielle de positionsTimeArray, utilisée uniquement par les tests du paquet
+    double[][] positionsTimeArraySerial() {
         double i_init = initialOrbit.getI();
         KeplerianPropagator propagator = new KeplerianPropagator(initialOrbit);
         AbsoluteDate start = initialOrbit.getDate();
@@ -0,0 +1,265 @@
+package org.maneuvers;
+
+import org.hipparchus.analysis.solvers.BrentSolver;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.optim.MaxEval;
+import org.hipparchus.optim.nonlinear.scalar.GoalType;
+import org.hipparchus.optim.univariate.BrentOptimizer;
+import org.hipparchus.optim.univariate.SearchInterval;
+import org.hipparchus.optim.univariate.UnivariateObjectiveFunction;
+import org.hipparchus.optim.univariate.UnivariatePointValuePair;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.propagation.Propagator;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+import org.orekit.utils.IERSConventions;
+import org.orekit.utils.PVCoordinates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class StationVisibility {
+
+    // Search grid: at most 30 s, and at least 180 samples per orbit
+    private static final double MAX_STEP = 30.0;
+    private static final int STEPS_PER_ORBIT = 180;
+
+    // Peaks below the mask by less than this (sine of elevation) are checked for a pass between two samples
+    private static final double GRAZING = 0.05;
+
+    private final Trajectory trajectory;
+    private final double tmax;
+    private final double pas;
+    private final double minElevation;
+
+    // Ground station, latitude and longitude in radians, altitude in meters
+    public record Station(String name, double latitude, double longitude, double altitude) { }
+
+    // Pass of the satellite over a station, times in seconds from the start, elevation in radians.
+    // A pass already in progress at the start (or still in progress at the end) is cut at the span
+    // boundary: its aos (or los) is then the boundary, not a horizon crossing, and is flagged as truncated.
+    public record Pass(double aos, double los, double tMax, double maxElevation,
+                       boolean aosTruncated, boolean losTruncated) { }
+
+    // Trajectory sampled on the search grid: states at k * step from the start, k = 0 .. floor(tmax / step).
+    // The grid step divides the span, so the last state is at tmax (to a relative 1e-12).
+    public interface Trajectory {
+        SpacecraftState[] sample(double step);
+    }
+
+    // Any propagator (Keplerian orbit, Hohmann transfer), propagated once in time order
+    public StationVisibility(Propagator propagator, double tmax, double minElevation) {
+        this(step -> sampleSerial(propagator, tmax, step),
+             propagator.getInitialState().getOrbit().getKeplerianPeriod(), tmax, minElevation);
+    }
+
+    // Keplerian trajectory with an impulse (inclination change), sampled with the segmented PosKep sampler
+    public StationVisibility(PosKep posKep, double minElevation) {
+        this(step -> posKep.withStep(step).statesArray(),
+             posKep.getInitialOrbit().getKeplerianPeriod(), posKep.getTmax(), minElevation);
+    }
+
+    private StationVisibility(Trajectory trajectory, double period, double tmax, double minElevation) {
+        if (tmax < 0) {
+            throw new IllegalArgumentException("tmax doit être >= 0");
+        }
+        this.trajectory = trajectory;
+        this.tmax = tmax;
+        this.minElevation = minElevation;
+        // The search grid does not depend on the sampling step of the response
+        double step = Double.isFinite(period) && period > 0
+                ? Math.min(MAX_STEP, period / STEPS_PER_ORBIT)
+                : MAX_STEP;
+        // Whole number of intervals, so that the last sample falls on tmax and the end of the span is searched.
+        // The step is shortened by a relative 1e-12 so that floor(tmax / pas) cannot round down to one less.
+        int intervals = (int) Math.ceil(tmax / step);
+        this.pas = (intervals > 0) ? tmax / intervals * (1 - 1e-12) : step;
+    }
+
+    // Trajectory sampled once in the Earth-fixed frame, position and velocity on the coarse grid
+    private static final class Track {
+        final double pas;
+        final double[] pos;
+        final double[] vel;
+        final int n;
+
+        Track(double pas, int n) {
+            this.pas = pas;
+            this.n = n;
+            this.pos = new double[3 * n];
+            this.vel = new double[3 * n];
+        }
+
+        // Cubic Hermite interpolation between the two samples around t
+        Vector3D position(double t) {
+            if (n == 1) {
+                return new Vector3D(pos[0], pos[1], pos[2]);
+            }
+            int k = Math.max(0, Math.min(n - 2, (int) Math.floor(t / pas)));
+            double u = (t - k * pas) / pas;
+            double u2 = u * u;
+            double u3 = u2 * u;
+            double h00 = 2 * u3 - 3 * u2 + 1;
+            double h10 = (u3 - 2 * u2 + u) * pas;
+            double h01 = -2 * u3 + 3 * u2;
+            double h11 = (u3 - u2) * pas;
+            int a = 3 * k;
+            int b = 3 * (k + 1);
+            return new Vector3D(
+                    h00 * pos[a] + h10 * vel[a] + h01 * pos[b] + h11 * vel[b],
+                    h00 * pos[a + 1] + h10 * vel[a + 1] + h01 * pos[b + 1] + h11 * vel[b + 1],
+                    h00 * pos[a + 2] + h10 * vel[a + 2] + h01 * pos[b + 2] + h11 * vel[b + 2]);
+        }
+    }
+
+    private static SpacecraftState[] sampleSerial(Propagator propagator, double tmax, double step) {
+        AbsoluteDate start = propagator.getInitialState().getDate();
+        int n = (int) Math.floor(tmax / step) + 1;
+        SpacecraftState[] states = new SpacecraftState[n];
+        for (int k = 0; k < n; k++) {
+            states[k] = propagator.propagate(start.shiftedBy(k * step));
+        }
+        return states;
+    }
+
+    // Propagates the trajectory a single time, whatever the number of stations
+    private Track sample(Frame earthFrame) {
+        SpacecraftState[] states = trajectory.sample(pas);
+        int n = states.length;
+        Track track = new Track(pas, n);
+
+        // Each sample needs its own Earth orientation (precession, nutation, EOP): converted in parallel
+        IntStream.range(0, n).parallel().forEach(k -> {
+            PVCoordinates pv = states[k].getPVCoordinates(earthFrame);
+            track.pos[3 * k] = pv.getPosition().getX();
+            track.pos[3 * k + 1] = pv.getPosition().getY();
+            track.pos[3 * k + 2] = pv.getPosition().getZ();
+            track.vel[3 * k] = pv.getVelocity().getX();
+            track.vel[3 * k + 1] = pv.getVelocity().getY();
+            track.vel[3 * k + 2] = pv.getVelocity().getZ();
+        });
+        return track;
+    }
+
+    /** Renvoie, pour chaque station (dans l'ordre), la liste de ses passages */
+    public List<List<Pass>> computePasses(List<Station> stations) {
+        return computePasses(stations, FramesFactory.getITRF(IERSConventions.IERS_2010, true));
+    }
+
+    // Same, in any Earth-fixed frame
+    List<List<Pass>> computePasses(List<Station> stations, Frame earthFrame) {
+        OneAxisEllipsoid earth = new OneAxisEllipsoid(
+                Constants.WGS84_EARTH_EQUATORIAL_RADIUS, Constants.WGS84_EARTH_FLATTENING, earthFrame);
+
+        Track track = sample(earthFrame);
+
+        // Stations only read the shared track, they are processed in parallel
+        return stations.parallelStream()
+                .map(station -> stationPasses(track, earth, station))
+                .collect(Collectors.toList());
+    }
+
+    private List<Pass> stationPasses(Track track, OneAxisEllipsoid earth, Station station) {
+        GeodeticPoint point = new GeodeticPoint(station.latitude(), station.longitude(), station.altitude());
+        Vector3D site = earth.transform(point);
+        Vector3D zenith = point.getZenith();
+        double sinMin = Math.sin(minElevation);
+        // A pass still in progress at the end is cut exactly at the span boundary
+        double tEnd = tmax;
+
+        // g > 0 when the satellite is above the mask
+        double[] g = new double[track.n];
+        for (int k = 0; k < track.n; k++) {
+            double dx = track.pos[3 * k] - site.getX();
+            double dy = track.pos[3 * k + 1] - site.getY();
+            double dz = track.pos[3 * k + 2] - site.getZ();
+            double range = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            g[k] = (dx * zenith.getX() + dy * zenith.getY() + dz * zenith.getZ()) / range - sinMin;
+        }
+
+        BrentSolver solver = new BrentSolver(1e-3);
+        List<Pass> passes = new ArrayList<>();
+        double aos = 0;
+        boolean visible = g[0] >= 0;
+        boolean aosTruncated = visible;
+        int kBest = 0;
+
+        for (int k = 0; k < track.n; k++) {
+            if (k > 0 && (g[k] >= 0) != visible) {
+                // Only the bracketed crossing is refined, on the interpolated track
+                double crossing = solver.solve(100,
+                        t -> sinElevation(track, site, zenith, t) - sinMin, (k - 1) * pas, k * pas);
+                if (!visible) {
+                    aos = crossing;
+                    aosTruncated = false;
+                    kBest = k;
+                } else {
+                    passes.add(refineMax(track, site, zenith, aos, crossing, kBest, aosTruncated, false));
+                }
+                visible = !visible;
+            }
+            if (visible && g[k] > g[kBest]) {
+                kBest = k;
+            }
+            if (!visible && k > 0 && k < track.n - 1
+                    && g[k - 1] < g[k] && g[k] >= g[k + 1] && g[k] > -GRAZING) {
+                // Culmination just below the mask: a short pass may fit between two samples
+                Pass grazing = grazingPass(track, site, zenith, solver, sinMin, k);
+                if (grazing != null) {
+                    passes.add(grazing);
+                }
+            }
+        }
+        if (visible) {
+            passes.add(refineMax(track, site, zenith, aos, tEnd, kBest, aosTruncated, true));
+        }
+        return passes;
+    }
+
+    private Pass grazingPass(Track track, Vector3D site, Vector3D zenith, BrentSolver solver, double sinMin, int k) {
+        double lo = (k - 1) * pas;
+        double hi = (k + 1) * pas;
+        BrentOptimizer optimizer = new BrentOptimizer(1e-10, 1e-3);
+        UnivariatePointValuePair best = optimizer.optimize(
+                new MaxEval(200),
+                new UnivariateObjectiveFunction(t -> sinElevation(track, site, zenith, t)),
+                GoalType.MAXIMIZE,
+                new SearchInterval(lo, hi, k * pas));
+        double tMax = best.getPoint();
+        if (best.getValue() - sinMin <= 0) {
+            return null;
+        }
+        double aos = solver.solve(100, t -> sinElevation(track, site, zenith, t) - sinMin, lo, tMax);
+        double los = solver.solve(100, t -> sinElevation(track, site, zenith, t) - sinMin, tMax, hi);
+        return new Pass(aos, los, tMax, Math.asin(Math.max(-1, Math.min(1, best.getValue()))), false, false);
+    }
+
+    private Pass refineMax(Track track, Vector3D site, Vector3D zenith, double aos, double los, int kBest,
+                           boolean aosTruncated, boolean losTruncated) {
+        double lo = Math.max(aos, (kBest - 1) * pas);
+        double hi = Math.min(los, (kBest + 1) * pas);
+        double tMax = Math.max(lo, Math.min(hi, kBest * pas));
+        if (hi > lo) {
+            BrentOptimizer optimizer = new BrentOptimizer(1e-10, 1e-3);
+            UnivariatePointValuePair best = optimizer.optimize(
+                    new MaxEval(200),
+                    new UnivariateObjectiveFunction(t -> sinElevation(track, site, zenith, t)),
+                    GoalType.MAXIMIZE,
+                    new SearchInterval(lo, hi, tMax));
+            tMax = best.getPoint();
+        }
+        double elevation = Math.asin(Math.max(-1, Math.min(1, sinElevation(track, site, zenith, tMax))));
+        return new Pass(aos, los, tMax, elevation, aosTruncated, losTruncated);
+    }
+
+    private static double sinElevation(Track track, Vector3D site, Vector3D zenith, double t) {
+        Vector3D los = track.position(t).subtract(site);
+        return Vector3D.dotProduct(los, zenith) / los.getNorm();
+    }
+}
@@ -0,0 +1,167 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Coordinator under test on a random port, two workers started next to it on random ports
+@SpringBootTest(classes = OrekitServer.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ClusterIntegrationTest {
+
+    private static final String SECRET = "test-secret";
+
+    private static final List<ConfigurableApplicationContext> WORKERS = new ArrayList<>();
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    private static ConfigurableApplicationContext startWorker() {
+        return new SpringApplicationBuilder(OrekitServer.class)
+                .properties("server.port=0", "orekit.cluster.role=worker", "orekit.cluster.secret=" + SECRET)
+                .run();
+    }
+
+    private static String url(ConfigurableApplicationContext worker) {
+        return "http://localhost:" + worker.getEnvironment().getProperty("local.server.port");
+    }
+
+    // Started on first use: the coordinator configuration needs their ports
+    private static synchronized List<String> workerUrls() {
+        if (WORKERS.isEmpty()) {
+            WORKERS.add(startWorker());
+            WORKERS.add(startWorker());
+        }
+        return List.of(url(WORKERS.get(0)), url(WORKERS.get(1)));
+    }
+
+    @DynamicPropertySource
+    static void coordinator(DynamicPropertyRegistry registry) {
+        registry.add("orekit.cluster.role", () -> "coordinator");
+        registry.add("orekit.cluster.secret", () -> SECRET);
+        registry.add("orekit.cluster.workers", () -> String.join(",", workerUrls()));
+    }
+
+    @AfterAll
+    static void stopWorkers() {
+        WORKERS.forEach(ConfigurableApplicationContext::close);
+        WORKERS.clear();
+    }
+
+    private static Map<String, Object> request(Object p1) {
+        return Map.of("action", "compute_orbit", "params", Map.of("p1", p1, "type", "keplerian"));
+    }
+
+    private String servedBy(Object p1) {
+        ResponseEntity<Map> res = rest.postForEntity("/orekit", request(p1), Map.class);
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(res.getHeaders().getContentType()));
+        assertNotNull(res.getBody().get("ok"));
+        return res.getHeaders().getFirst(ClusterRouter.WORKER_HEADER);
+    }
+
+    private ResponseEntity<Map> join(String url, String secret) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (secret != null) {
+            headers.set(ClusterRouter.SECRET_HEADER, secret);
+        }
+        return rest.postForEntity("/cluster/join", new HttpEntity<>(Map.of("url", url), headers), Map.class);
+    }
+
+    private List<String> healthyWorkers() {
+        return (List<String>) rest.getForObject("/health", Map.class).get("workers");
+    }
+
+    @Test
+    void routesEachKeyToOneWorker() {
+        assertEquals(new HashSet<>(workerUrls()), new HashSet<>(healthyWorkers()));
+
+        Set<String> used = new HashSet<>();
+        for (int k = 0; k < 40; k++) {
+            String worker = servedBy(7000000 + k);
+            assertTrue(workerUrls().contains(worker), worker);
+            // Same request again, written with a double: same canonical key, same worker
+            assertEquals(worker, servedBy(7000000.0 + k));
+            used.add(worker);
+        }
+        assertEquals(2, used.size());
+    }
+
+    @Test
+    void batchResponsesAreRelayedInOrder() {
+        List<Map<String, Object>> items = List.of(request(7000000), request(7000001), request(7000002));
+        Map<String, Object> res = rest.postForObject("/orekit",
+                Map.of("action", "batch", "params", Map.of("items", items)), Map.class);
+
+        assertEquals(true, res.get("ok"));
+        List<Map<String, Object>> results = (List<Map<String, Object>>) res.get("result");
+        assertEquals(3, results.size());
+        for (Map<String, Object> item : results) {
+            assertNotNull(item.get("ok"));
+        }
+    }
+
+    @Test
+    void joinNeedsTheSecretAndAHealthyNode() {
+        assertEquals(HttpStatus.FORBIDDEN, join(workerUrls().get(0), null).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, join(workerUrls().get(0), "wrong").getStatusCode());
+        // Nothing listens on port 1: the node is not admitted
+        assertEquals(HttpStatus.BAD_REQUEST, join("http://localhost:1", SECRET).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, join("file:///etc/passwd", SECRET).getStatusCode());
+        assertEquals(HttpStatus.OK, join(workerUrls().get(0), SECRET).getStatusCode());
+        assertEquals(2, healthyWorkers().size());
+    }
+
+    @Test
+    void keysOfAStoppedWorkerFailOver() {
+        ConfigurableApplicationContext third = startWorker();
+        String thirdUrl = url(third);
+        try {
+            assertEquals(HttpStatus.OK, join(thirdUrl, SECRET).getStatusCode());
+            assertEquals(3, healthyWorkers().size());
+
+            // A key owned by the new worker
+            int key = 0;
+            while (!thirdUrl.equals(servedBy(8000000 + key))) {
+                key++;
+            }
+            third.close();
+
+            // Connection refused: the next worker on the ring answers and the dead one leaves the ring
+            String fallback = servedBy(8000000 + key);
+            assertTrue(workerUrls().contains(fallback), fallback);
+            assertEquals(new HashSet<>(workerUrls()), new HashSet<>(healthyWorkers()));
+        } finally {
+            third.close();
+            rest.postForEntity("/cluster/leave", leaveRequest(thirdUrl), Map.class);
+        }
+    }
+
+    private static HttpEntity<Map<String, Object>> leaveRequest(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(ClusterRouter.SECRET_HEADER, SECRET);
+        return new HttpEntity<>(Map.of("url", url), headers);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterRouterTest {
+
+    private final ClusterRouter router = new ClusterRouter("coordinator", "", "", "http://localhost:8080",
+            16, 1000, 2, "s3cret", "localhost", 200);
+
+    @AfterEach
+    void stop() {
+        router.unregister();
+    }
+
+    private static Map<String, Object> ordered(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int k = 0; k < keysAndValues.length; k += 2) {
+            map.put((String) keysAndValues[k], keysAndValues[k + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    void integersAndDoublesGiveTheSameKey() {
+        assertEquals(router.canonicalKey("compute_orbit", Map.of("p1", 7000000)),
+                     router.canonicalKey("compute_orbit", Map.of("p1", 7000000.0)));
+        assertEquals(router.canonicalKey("compute_orbit", Map.of("dt", List.of(1, 2L))),
+                     router.canonicalKey("compute_orbit", Map.of("dt", List.of(1.0, 2.0))));
+    }
+
+    @Test
+    void mapKeyOrderDoesNotChangeTheKey() {
+        Map<String, Object> first = ordered("a", 1, "b", ordered("x", "u", "y", "v"));
+        Map<String, Object> second = ordered("b", ordered("y", "v", "x", "u"), "a", 1);
+        assertEquals(router.canonicalKey("compute_orbit", first), router.canonicalKey("compute_orbit", second));
+    }
+
+    @Test
+    void listOrderAndActionChangeTheKey() {
+        assertNotEquals(router.canonicalKey("compute_orbit", Map.of("l", List.of(1, 2))),
+                        router.canonicalKey("compute_orbit", Map.of("l", List.of(2, 1))));
+        assertNotEquals(router.canonicalKey("compute_orbit", Map.of("a", 1)),
+                        router.canonicalKey("compute_hohmann", Map.of("a", 1)));
+    }
+
+    @Test
+    void onlyTheConfiguredSecretIsAuthorized() {
+        assertTrue(router.authorized("s3cret"));
+        assertFalse(router.authorized("s3cre"));
+        assertFalse(router.authorized(null));
+
+        ClusterRouter open = new ClusterRouter("coordinator", "", "", "http://localhost:8080",
+                16, 1000, 1, "", "", 200);
+        assertFalse(open.authorized(""));
+        open.unregister();
+    }
+
+    @Test
+    void admitRejectsBadUrlsBeforeAnyCall() {
+        assertThrows(IllegalArgumentException.class, () -> router.admit("file:///etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> router.admit("http://169.254.169.254"));
+        assertThrows(IllegalArgumentException.class, () -> router.admit("not a url"));
+        assertTrue(router.healthyWorkers().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10000;
+
+    private static ConsistentHashRing ring(String... nodes) {
+        ConsistentHashRing ring = new ConsistentHashRing(128);
+        for (String node : nodes) {
+            ring.add(node);
+        }
+        return ring;
+    }
+
+    private static Map<String, List<String>> placement(ConsistentHashRing ring) {
+        Map<String, List<String>> out = new HashMap<>();
+        for (int k = 0; k < KEYS; k++) {
+            out.put("key" + k, ring.nodesFor("key" + k));
+        }
+        return out;
+    }
+
+    @Test
+    void nodesForListsEveryMemberOnce() {
+        ConsistentHashRing ring = ring("a", "b", "c");
+        for (List<String> nodes : placement(ring).values()) {
+            assertEquals(3, nodes.size());
+            assertEquals(3, new HashSet<>(nodes).size());
+        }
+        assertEquals(List.of("a"), ring("a").nodesFor("key"));
+        assertTrue(new ConsistentHashRing(128).nodesFor("key").isEmpty());
+    }
+
+    @Test
+    void addedNodeOnlyTakesKeys() {
+        ConsistentHashRing ring = ring("a", "b", "c");
+        Map<String, List<String>> before = placement(ring);
+        ring.add("d");
+        Map<String, List<String>> after = placement(ring);
+
+        int moved = 0;
+        for (String key : before.keySet()) {
+            String owner = after.get(key).get(0);
+            if (!owner.equals(before.get(key).get(0))) {
+                assertEquals("d", owner, key);
+                moved++;
+            }
+        }
+        // About a quarter of the keys, with 128 virtual nodes per member
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.35, "moved " + moved);
+    }
+
+    @Test
+    void removedNodeKeysGoToTheNextOwner() {
+        ConsistentHashRing ring = ring("a", "b", "c");
+        Map<String, List<String>> before = placement(ring);
+        ring.remove("b");
+        Map<String, List<String>> after = placement(ring);
+
+        for (String key : before.keySet()) {
+            List<String> was = before.get(key);
+            String owner = after.get(key).get(0);
+            if (was.get(0).equals("b")) {
+                // The owner comes first, the failover order is the next owner once it is gone
+                assertEquals(was.get(1), owner, key);
+            } else {
+                assertEquals(was.get(0), owner, key);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNoVirtualNode() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+    }
+}
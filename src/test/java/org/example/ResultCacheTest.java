@@ -0,0 +1,69 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultCacheTest {
+
+    private static Map<String, Object> result(int samples) {
+        return Map.of("ok", true, "result", Map.of("data", new double[samples][4]));
+    }
+
+    private static final long SIZE = ResultCache.estimate(result(100));
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondTheByteLimit() {
+        ResultCache cache = new ResultCache(3 * SIZE + SIZE / 2, Long.MAX_VALUE);
+        cache.put("a", result(100));
+        cache.put("b", result(100));
+        cache.put("c", result(100));
+        cache.get("a");
+        cache.put("d", result(100));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(3 * SIZE, cache.bytes());
+    }
+
+    @Test
+    void oneLargeResultEvictsSeveralSmallOnes() {
+        long large = ResultCache.estimate(result(250));
+        ResultCache cache = new ResultCache(large + SIZE, Long.MAX_VALUE);
+        cache.put("a", result(100));
+        cache.put("b", result(100));
+        cache.put("large", result(250));
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("large"));
+        assertEquals(large + SIZE, cache.bytes());
+    }
+
+    @Test
+    void rejectsResultsOverTheEntryLimit() {
+        ResultCache cache = new ResultCache(100 * SIZE, SIZE - 1);
+        cache.put("a", result(100));
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void replacingAResultCountsItOnce() {
+        ResultCache cache = new ResultCache(100 * SIZE, Long.MAX_VALUE);
+        cache.put("a", result(100));
+        cache.put("a", result(100));
+
+        assertEquals(1, cache.size());
+        assertEquals(SIZE, cache.bytes());
+    }
+}
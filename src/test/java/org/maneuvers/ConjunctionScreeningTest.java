@@ -0,0 +1,159 @@
+package org.maneuvers;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.optim.MaxEval;
+import org.hipparchus.optim.nonlinear.scalar.GoalType;
+import org.hipparchus.optim.univariate.BrentOptimizer;
+import org.hipparchus.optim.univariate.SearchInterval;
+import org.hipparchus.optim.univariate.UnivariateObjectiveFunction;
+import org.hipparchus.optim.univariate.UnivariatePointValuePair;
+import org.junit.jupiter.api.Test;
+import org.orekit.frames.FramesFactory;
+import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.PositionAngleType;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConjunctionScreeningTest {
+
+    // 1081 samples: 17 buckets of 64, bucket boundaries every 640 s
+    private static final double TMAX = 10800;
+    private static final double PAS = 10;
+    private static final double THRESHOLD = 5000;
+
+    private static final double A = 7000e3;
+    private static final double MEAN_MOTION = Math.sqrt(Constants.WGS84_EARTH_MU / (A * A * A));
+
+    private static KeplerianOrbit circular(double i, double raan, double anomaly) {
+        return new KeplerianOrbit(A, 0, i, 0, raan, anomaly,
+                PositionAngleType.TRUE, FramesFactory.getEME2000(), AbsoluteDate.J2000_EPOCH, Constants.WGS84_EARTH_MU);
+    }
+
+    // Circular orbit of the same radius that reaches its ascending node, on the equatorial reference, at tMeet
+    private static KeplerianOrbit crossing(double i, double tMeet) {
+        return circular(i, MEAN_MOTION * tMeet, -MEAN_MOTION * tMeet);
+    }
+
+    private static List<KeplerianOrbit> orbits() {
+        List<KeplerianOrbit> orbits = new ArrayList<>();
+        // 0: equatorial reference
+        orbits.add(circular(0, 0, 0));
+        // 1: co-orbiting 700 m ahead, 61 km out of plane at most: always inside the screening radius,
+        //    a minimum at every node
+        orbits.add(circular(Math.toRadians(0.5), 0, 1e-4));
+        // 2: crosses the reference exactly on a sample at a bucket boundary (k = 64)
+        orbits.add(crossing(Math.toRadians(60), 640));
+        // 3: crosses the reference between the last sample of a bucket and the first of the next (k = 127, 128)
+        orbits.add(crossing(Math.toRadians(100), 1275));
+        // 4: geostationary, its shell overlaps no other one
+        orbits.add(new KeplerianOrbit(42164e3, 0, 0, 0, 0, 0,
+                PositionAngleType.TRUE, FramesFactory.getEME2000(), AbsoluteDate.J2000_EPOCH, Constants.WGS84_EARTH_MU));
+        return orbits;
+    }
+
+    private static double distance(List<KeplerianOrbit> orbits, int i, int j, double t) {
+        return Vector3D.distance(orbits.get(i).shiftedBy(t).getPVCoordinates().getPosition(),
+                                 orbits.get(j).shiftedBy(t).getPVCoordinates().getPosition());
+    }
+
+    // Every pair sampled on the whole grid, every local minimum refined the same way as the screening
+    private static List<ConjunctionScreening.Conjunction> bruteForce(List<KeplerianOrbit> orbits) {
+        int n = (int) Math.floor(TMAX / PAS) + 1;
+        List<ConjunctionScreening.Conjunction> out = new ArrayList<>();
+        for (int i = 0; i < orbits.size(); i++) {
+            for (int j = i + 1; j < orbits.size(); j++) {
+                double[] d = new double[n];
+                for (int k = 0; k < n; k++) {
+                    d[k] = distance(orbits, i, j, k * PAS);
+                }
+                for (int k = 0; k < n; k++) {
+                    double before = (k > 0) ? d[k - 1] : Double.POSITIVE_INFINITY;
+                    double after = (k < n - 1) ? d[k + 1] : Double.POSITIVE_INFINITY;
+                    if (before > d[k] && d[k] <= after) {
+                        ConjunctionScreening.Conjunction c = refine(orbits, i, j, k, d[k]);
+                        if (c.distance() <= THRESHOLD) {
+                            out.add(c);
+                        }
+                    }
+                }
+            }
+        }
+        out.sort(Comparator.comparingDouble(ConjunctionScreening.Conjunction::t));
+        return out;
+    }
+
+    private static ConjunctionScreening.Conjunction refine(List<KeplerianOrbit> orbits, int i, int j, int k, double d) {
+        double lo = Math.max(0, (k - 1) * PAS);
+        double hi = Math.min(TMAX, (k + 1) * PAS);
+        UnivariatePointValuePair best = new BrentOptimizer(1e-10, 1e-3).optimize(
+                new MaxEval(200),
+                new UnivariateObjectiveFunction(t -> distance(orbits, i, j, t)),
+                GoalType.MINIMIZE,
+                new SearchInterval(lo, hi, k * PAS));
+        return best.getValue() < d
+                ? new ConjunctionScreening.Conjunction(i, j, best.getPoint(), best.getValue())
+                : new ConjunctionScreening.Conjunction(i, j, k * PAS, d);
+    }
+
+    private static long count(List<ConjunctionScreening.Conjunction> conjunctions, int i, int j) {
+        return conjunctions.stream().filter(c -> c.i() == i && c.j() == j).count();
+    }
+
+    @Test
+    void sameConjunctionsAsAllPairs() {
+        List<KeplerianOrbit> orbits = orbits();
+        List<ConjunctionScreening.Conjunction> expected = bruteForce(orbits);
+        List<ConjunctionScreening.Conjunction> actual = new ConjunctionScreening(orbits, TMAX, PAS, THRESHOLD).screen();
+
+        assertEquals(expected.size(), actual.size());
+        for (int c = 0; c < expected.size(); c++) {
+            ConjunctionScreening.Conjunction e = expected.get(c);
+            ConjunctionScreening.Conjunction a = actual.get(c);
+            assertEquals(e.i(), a.i(), "conjunction " + c);
+            assertEquals(e.j(), a.j(), "conjunction " + c);
+            assertEquals(e.t(), a.t(), 1e-6, "conjunction " + c);
+            assertEquals(e.distance(), a.distance(), 1e-6, "conjunction " + c);
+        }
+    }
+
+    @Test
+    void coOrbitingPairHasOneMinimumPerNode() {
+        List<ConjunctionScreening.Conjunction> found =
+                new ConjunctionScreening(orbits(), TMAX, PAS, THRESHOLD).screen();
+
+        // Nodes every half period (about 2914 s): t = 0 and three more inside the span
+        assertEquals(4, count(found, 0, 1));
+        for (ConjunctionScreening.Conjunction c : found) {
+            if (c.i() == 0 && c.j() == 1) {
+                assertTrue(c.distance() < 1000, "co-orbiting minimum at t = " + c.t());
+            }
+        }
+    }
+
+    @Test
+    void crossingsOnBucketBoundaries() {
+        List<ConjunctionScreening.Conjunction> found =
+                new ConjunctionScreening(orbits(), TMAX, PAS, THRESHOLD).screen();
+
+        // Both objects meet the reference exactly; the refinement stops within a few milliseconds (7.5 km/s)
+        assertTrue(found.stream().anyMatch(c -> c.i() == 0 && c.j() == 2
+                && Math.abs(c.t() - 640) < 1e-2 && c.distance() < 20));
+        assertTrue(found.stream().anyMatch(c -> c.i() == 0 && c.j() == 3
+                && Math.abs(c.t() - 1275) < 1e-2 && c.distance() < 20));
+    }
+
+    @Test
+    void isolatedShellIsNeverReported() {
+        List<ConjunctionScreening.Conjunction> found =
+                new ConjunctionScreening(orbits(), TMAX, PAS, THRESHOLD).screen();
+
+        assertTrue(found.stream().noneMatch(c -> c.i() == 4 || c.j() == 4));
+    }
+}
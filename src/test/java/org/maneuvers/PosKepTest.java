@@ -0,0 +1,81 @@
+package org.maneuvers;
+
+import org.junit.jupiter.api.Test;
+import org.orekit.forces.maneuvers.ImpulseManeuver;
+import org.orekit.frames.FramesFactory;
+import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.PositionAngleType;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PosKepTest {
+
+    // 5001 samples: three parallel chunks of 2048, the second boundary at t = 20480 s
+    private static final double TMAX = 50000;
+    private static final double PAS = 10;
+
+    // Post-maneuver samples are seeded from the first sample after the impulse, not from the reset
+    // state at the impulse date as in the serial path: the outputs agree to round-off (positions in Mm)
+    private static final double TOLERANCE = 1e-9;
+
+    private static KeplerianOrbit orbit(double i) {
+        return new KeplerianOrbit(7000e3, 0.001, i, 0.3, 0.5, 0.1,
+                PositionAngleType.TRUE, FramesFactory.getEME2000(), AbsoluteDate.J2000_EPOCH, Constants.WGS84_EARTH_MU);
+    }
+
+    // A fresh maneuver for each sampler, detectors keep state between propagations
+    private static PosKep withManeuver(KeplerianOrbit orbit, double startdate) {
+        ImpulseManeuver maneuver = new InclinationChange(
+                orbit, Math.toRadians(45), true, orbit.getDate().shiftedBy(startdate)).computeManeuver();
+        return new PosKep(orbit, TMAX, PAS, maneuver, startdate);
+    }
+
+    private static void assertSameSamples(double[][] serial, double[][] parallel, double tolerance) {
+        assertEquals(serial.length, parallel.length);
+        for (int k = 0; k < serial.length; k++) {
+            assertArrayEquals(serial[k], parallel[k], tolerance, "sample " + k);
+        }
+    }
+
+    private static void checkManeuver(KeplerianOrbit orbit, double startdate) {
+        double[][] serial = withManeuver(orbit, startdate).positionsTimeArraySerial();
+        double[][] parallel = withManeuver(orbit, startdate).positionsTimeArray();
+        assertSameSamples(serial, parallel, TOLERANCE);
+
+        // The impulse really happened inside the span
+        double[][] free = new PosKep(orbit, TMAX, PAS).positionsTimeArraySerial();
+        double[] last = serial[serial.length - 1];
+        double[] lastFree = free[free.length - 1];
+        assertTrue(Math.abs(last[3] - lastFree[3]) > 1e-3);
+    }
+
+    @Test
+    void withoutManeuverIsIdentical() {
+        PosKep posKep = new PosKep(orbit(Math.toRadians(30)), TMAX, PAS);
+        assertSameSamples(posKep.positionsTimeArraySerial(), posKep.positionsTimeArray(), 0);
+    }
+
+    @Test
+    void equatorialManeuverBetweenSamples() {
+        checkManeuver(orbit(0), 12345.6);
+    }
+
+    @Test
+    void equatorialManeuverOnChunkBoundary() {
+        checkManeuver(orbit(0), 20480);
+    }
+
+    @Test
+    void inclinedManeuver() {
+        checkManeuver(orbit(Math.toRadians(30)), 1000);
+    }
+
+    @Test
+    void inclinedManeuverNearChunkBoundary() {
+        checkManeuver(orbit(Math.toRadians(30)), 20475);
+    }
+}
@@ -0,0 +1,215 @@
+package org.maneuvers;
+
+import org.hipparchus.CalculusFieldElement;
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.RotationConvention;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.junit.jupiter.api.Test;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.frames.FieldTransform;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.frames.Transform;
+import org.orekit.frames.TransformProvider;
+import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.PositionAngleType;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.propagation.analytical.KeplerianPropagator;
+import org.orekit.propagation.events.ElevationDetector;
+import org.orekit.propagation.events.ElevationExtremumDetector;
+import org.orekit.propagation.events.EventsLogger;
+import org.orekit.propagation.events.handlers.ContinueOnEvent;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.FieldAbsoluteDate;
+import org.orekit.utils.Constants;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StationVisibilityTest {
+
+    private static final double DAY = 86400;
+    private static final double MIN_ELEVATION = Math.toRadians(5);
+
+    // Earth-fixed frame spinning at the WGS84 rate around the EME2000 pole: no orekit-data needed
+    private static final Frame EARTH = new Frame(FramesFactory.getEME2000(), new TransformProvider() {
+        @Override
+        public Transform getTransform(AbsoluteDate date) {
+            double angle = Constants.WGS84_EARTH_ANGULAR_VELOCITY * date.durationFrom(AbsoluteDate.J2000_EPOCH);
+            return new Transform(date, new Rotation(Vector3D.PLUS_K, angle, RotationConvention.FRAME_TRANSFORM),
+                    new Vector3D(0, 0, Constants.WGS84_EARTH_ANGULAR_VELOCITY));
+        }
+
+        @Override
+        public <T extends CalculusFieldElement<T>> FieldTransform<T> getTransform(FieldAbsoluteDate<T> date) {
+            throw new UnsupportedOperationException();
+        }
+    }, "test-earth");
+
+    private static final List<StationVisibility.Station> STATIONS = List.of(
+            new StationVisibility.Station("toulouse", Math.toRadians(43.6047), Math.toRadians(1.4442), 150),
+            new StationVisibility.Station("kiruna", Math.toRadians(67.8557), Math.toRadians(20.9645), 400));
+
+    private static KeplerianOrbit orbit() {
+        return new KeplerianOrbit(6878e3, 0.001, Math.toRadians(51.6), 0.3, 0.5, 0.1,
+                PositionAngleType.TRUE, FramesFactory.getEME2000(), AbsoluteDate.J2000_EPOCH, Constants.WGS84_EARTH_MU);
+    }
+
+    private static List<List<StationVisibility.Pass>> passes(KeplerianOrbit orbit, double tmax, double minElevation) {
+        return new StationVisibility(new KeplerianPropagator(orbit), tmax, minElevation).computePasses(STATIONS, EARTH);
+    }
+
+    // Passes found by Orekit event detection on the exact propagator, checked every second
+    private static List<StationVisibility.Pass> reference(KeplerianOrbit orbit, double tmax, double minElevation,
+                                                          StationVisibility.Station station) {
+        OneAxisEllipsoid earth = new OneAxisEllipsoid(
+                Constants.WGS84_EARTH_EQUATORIAL_RADIUS, Constants.WGS84_EARTH_FLATTENING, EARTH);
+        TopocentricFrame topo = new TopocentricFrame(earth,
+                new GeodeticPoint(station.latitude(), station.longitude(), station.altitude()), station.name());
+
+        ElevationDetector horizon = new ElevationDetector(1.0, 1e-6, topo)
+                .withConstantElevation(minElevation)
+                .withHandler(new ContinueOnEvent());
+        ElevationExtremumDetector extremum = new ElevationExtremumDetector(1.0, 1e-6, topo)
+                .withHandler(new ContinueOnEvent());
+        EventsLogger logger = new EventsLogger();
+        KeplerianPropagator propagator = new KeplerianPropagator(orbit);
+        propagator.addEventDetector(logger.monitorDetector(horizon));
+        propagator.addEventDetector(logger.monitorDetector(extremum));
+        SpacecraftState last = propagator.propagate(orbit.getDate().shiftedBy(tmax));
+
+        List<StationVisibility.Pass> passes = new ArrayList<>();
+        SpacecraftState first = new SpacecraftState(orbit);
+        boolean visible = extremum.getElevation(first) >= minElevation;
+        boolean aosTruncated = visible;
+        double aos = 0;
+        double tMax = 0;
+        double best = visible ? extremum.getElevation(first) : Double.NEGATIVE_INFINITY;
+
+        for (var event : logger.getLoggedEvents()) {
+            SpacecraftState state = event.getState();
+            double t = state.getDate().durationFrom(orbit.getDate());
+            double elevation = extremum.getElevation(state);
+            if (event.getEventDetector() == horizon && event.isIncreasing()) {
+                visible = true;
+                aosTruncated = false;
+                aos = t;
+                tMax = t;
+                best = elevation;
+            } else if (event.getEventDetector() == horizon) {
+                if (elevation > best) {
+                    tMax = t;
+                    best = elevation;
+                }
+                passes.add(new StationVisibility.Pass(aos, t, tMax, best, aosTruncated, false));
+                visible = false;
+            } else if (visible && !event.isIncreasing() && elevation > best) {
+                tMax = t;
+                best = elevation;
+            }
+        }
+        if (visible) {
+            double elevation = extremum.getElevation(last);
+            if (elevation > best) {
+                tMax = tmax;
+                best = elevation;
+            }
+            passes.add(new StationVisibility.Pass(aos, tmax, tMax, best, aosTruncated, true));
+        }
+        return passes;
+    }
+
+    private static void assertSamePasses(List<StationVisibility.Pass> expected, List<StationVisibility.Pass> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int p = 0; p < expected.size(); p++) {
+            StationVisibility.Pass e = expected.get(p);
+            StationVisibility.Pass a = actual.get(p);
+            // Solver tolerance of 1 ms, interpolated track within a few centimeters
+            assertEquals(e.aos(), a.aos(), 2e-2, "aos of pass " + p);
+            assertEquals(e.los(), a.los(), 2e-2, "los of pass " + p);
+            // The maximum is flat: its date is loosely defined, its elevation is not
+            assertEquals(e.tMax(), a.tMax(), 1.0, "tMax of pass " + p);
+            assertEquals(e.maxElevation(), a.maxElevation(), 1e-6, "max elevation of pass " + p);
+            assertEquals(e.aosTruncated(), a.aosTruncated(), "aos flag of pass " + p);
+            assertEquals(e.losTruncated(), a.losTruncated(), "los flag of pass " + p);
+        }
+    }
+
+    private static void checkAgainstDetectors(KeplerianOrbit orbit, double tmax, double minElevation) {
+        List<List<StationVisibility.Pass>> passes = passes(orbit, tmax, minElevation);
+        for (int s = 0; s < STATIONS.size(); s++) {
+            assertSamePasses(reference(orbit, tmax, minElevation, STATIONS.get(s)), passes.get(s));
+        }
+    }
+
+    private static StationVisibility.Pass firstFullPass(List<StationVisibility.Pass> passes) {
+        return passes.stream()
+                .filter(p -> !p.aosTruncated() && !p.losTruncated())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void sameAsElevationDetector() {
+        List<List<StationVisibility.Pass>> passes = passes(orbit(), DAY, MIN_ELEVATION);
+        assertFalse(passes.get(0).isEmpty());
+        assertFalse(passes.get(1).isEmpty());
+        checkAgainstDetectors(orbit(), DAY, MIN_ELEVATION);
+    }
+
+    @Test
+    void passShorterThanOneStep() {
+        // Mask set just below the culmination of a pass: only a few seconds remain above it
+        StationVisibility.Pass pass = firstFullPass(passes(orbit(), DAY, MIN_ELEVATION).get(0));
+        double mask = pass.maxElevation() - 1e-5;
+
+        List<StationVisibility.Pass> grazing = passes(orbit(), DAY, mask).get(0);
+        assertTrue(grazing.stream().anyMatch(p -> Math.abs(p.tMax() - pass.tMax()) < 1.0 && p.los() - p.aos() < 30));
+        checkAgainstDetectors(orbit(), DAY, mask);
+    }
+
+    @Test
+    void passesCutByTheSpan() {
+        StationVisibility.Pass pass = firstFullPass(passes(orbit(), DAY, MIN_ELEVATION).get(0));
+        double middle = (pass.aos() + pass.los()) / 2;
+
+        // Span ending in the middle of the pass
+        List<StationVisibility.Pass> ending = passes(orbit(), middle, MIN_ELEVATION).get(0);
+        StationVisibility.Pass lastPass = ending.get(ending.size() - 1);
+        assertTrue(lastPass.losTruncated());
+        assertEquals(middle, lastPass.los(), 1e-9);
+        checkAgainstDetectors(orbit(), middle, MIN_ELEVATION);
+
+        // Span starting in the middle of the pass
+        KeplerianOrbit shifted = (KeplerianOrbit) orbit().shiftedBy(middle);
+        StationVisibility.Pass firstPass = passes(shifted, DAY - middle, MIN_ELEVATION).get(0).get(0);
+        assertTrue(firstPass.aosTruncated());
+        assertEquals(0, firstPass.aos(), 0);
+        assertEquals(pass.los() - middle, firstPass.los(), 2e-2);
+        checkAgainstDetectors(shifted, DAY - middle, MIN_ELEVATION);
+    }
+
+    @Test
+    void manyStationsShareOnePropagation() {
+        List<StationVisibility.Station> stations = new ArrayList<>();
+        for (int s = 0; s < 100; s++) {
+            stations.add(new StationVisibility.Station("s" + s,
+                    Math.toRadians(-60 + 12 * (s / 10)), Math.toRadians(-180 + 36 * (s % 10)), 0));
+        }
+        StationVisibility visibility = new StationVisibility(new KeplerianPropagator(orbit()), 7 * DAY, MIN_ELEVATION);
+
+        // Loose bound: one week over 100 stations is one propagation of about 20 000 samples,
+        // not 100 of them; it only catches a return to per-station propagation or event detection
+        List<List<StationVisibility.Pass>> passes =
+                assertTimeout(Duration.ofSeconds(20), () -> visibility.computePasses(stations, EARTH));
+        assertEquals(100, passes.size());
+    }
+}